@@ -58,6 +58,54 @@ public class ChatAdapterSpringbootApplication implements ApplicationRunner {
 	@Value("${data.flush.interval:0}")
 	private String flushi;
 
+	@Value("${data.history.size:10000}")
+	private String historyi;
+
+	@Value("${server.socket.sndbuf:0}")
+	private String sndbuf;
+
+	@Value("${server.socket.rcvbuf:0}")
+	private String rcvbuf;
+
+	@Value("${server.socket.tcpnodelay:false}")
+	private String tcpNoDelay;
+
+	@Value("${server.socket.keepalive:false}")
+	private String keepAlive;
+
+	@Value("${server.socket.streambuf:0}")
+	private String streambuf;
+
+	@Value("${server.tls.protocols:}")
+	private String tlsProtocols;
+
+	@Value("${server.tls.ciphers:}")
+	private String tlsCiphers;
+
+	@Value("${metadata.pool.size:0}")
+	private String metadataPoolSize;
+
+	@Value("${metadata.duplicates.window:0}")
+	private String duplicatesWindow;
+
+	@Value("${metadata.duplicates.threshold:3}")
+	private String duplicatesThreshold;
+
+	@Value("${metadata.duplicates.capacity:10000}")
+	private String duplicatesCapacity;
+
+	@Value("${metadata.duplicates.minlength:16}")
+	private String duplicatesMinLength;
+
+	@Value("${data.dispatch.engine:executor}")
+	private String dispatchEngine;
+
+	@Value("${data.dispatch.ringsize:1024}")
+	private String ringSize;
+
+	@Value("${data.dispatch.wait:park}")
+	private String waitStrategy;
+
 	@Value("${server.user:}")
 	private String username = null;
 
@@ -97,8 +145,31 @@ public class ChatAdapterSpringbootApplication implements ApplicationRunner {
 
 		System.out.println("Lightstreamer server name: " + name);
 
+		SocketOptions options = new SocketOptions();
+		options.setSendBufferSize(Integer.parseInt(sndbuf));
+		options.setReceiveBufferSize(Integer.parseInt(rcvbuf));
+		options.setTcpNoDelay(Boolean.parseBoolean(tcpNoDelay));
+		options.setKeepAlive(Boolean.parseBoolean(keepAlive));
+		options.setStreamBufferSize(Integer.parseInt(streambuf));
+		options.setTlsProtocols(tlsProtocols);
+		options.setTlsCipherSuites(tlsCiphers);
+		System.out.println("Lightstreamer server socket options: " + options);
+
+		// the Remote Server reads the size of the pool that serves the
+		// Metadata Adapter requests upon creation of the MetadataProviderServer
+		if (System.getProperty("lightstreamer.metadata.pool.size") == null) {
+			System.setProperty("lightstreamer.metadata.pool.size", metadataPoolSize);
+		}
+		System.out.println("Metadata Adapter request pool size: "
+				+ System.getProperty("lightstreamer.metadata.pool.size"));
+
+		System.out.println("Metadata Adapter duplicate messages window: " + duplicatesWindow + ", threshold: "
+				+ duplicatesThreshold + ", capacity: " + duplicatesCapacity + ", min length: " + duplicatesMinLength);
+
 		System.out.println("Data Adapter flush chat history interval: " + flushi);
 
+		System.out.println("Data Adapter searchable history size: " + historyi);
+
 		System.out.println("Start Lightstreamer Chat remote Adapter ... ");
 
 		/*
@@ -107,7 +178,8 @@ public class ChatAdapterSpringbootApplication implements ApplicationRunner {
 		 * 
 		 */
 		MetadataProviderServer metaserver = new MetadataProviderServer();
-		metaserver.setAdapter(new ChatMetaDataAdapter(name));
+		metaserver.setAdapter(new ChatMetaDataAdapter(name, duplicatesWindow, duplicatesThreshold, duplicatesCapacity,
+				duplicatesMinLength));
 
 		if (name != null) {
 			metaserver.setName(name);
@@ -122,7 +194,7 @@ public class ChatAdapterSpringbootApplication implements ApplicationRunner {
 
 		System.out.println("Remote Metadata Adapter initialized");
 
-		ServerStarter starter = new ServerStarter(host, isTls, isHostnameVerify, rrPortMD);
+		ServerStarter starter = new ServerStarter(host, isTls, isHostnameVerify, rrPortMD, options);
 		starter.launch(metaserver);
 
 		/*
@@ -130,10 +202,13 @@ public class ChatAdapterSpringbootApplication implements ApplicationRunner {
 		 * Data Adapter Starter
 		 * 
 		 */
-		ServerStarter data_starter = new ServerStarter(host, isTls, isHostnameVerify, rrPortD);
+		ServerStarter data_starter = new ServerStarter(host, isTls, isHostnameVerify, rrPortD, options);
 
 		DataProviderServer server = new DataProviderServer();
-		server.setAdapter(new ChatDataAdapter(name, flushi));
+		DispatchEngine engine = DispatchEngine.create(dispatchEngine, ringSize, waitStrategy);
+		System.out.println("Data Adapter dispatch engine: " + engine);
+
+		server.setAdapter(new ChatDataAdapter(name, flushi, historyi, engine));
 
 		if (name != null) {
 			server.setName(name);
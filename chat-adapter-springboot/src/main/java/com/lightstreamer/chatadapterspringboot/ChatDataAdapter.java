@@ -2,14 +2,15 @@ package com.lightstreamer.chatadapterspringboot;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,13 +20,34 @@ import com.lightstreamer.adapters.remote.DataProviderException;
 import com.lightstreamer.adapters.remote.FailureException;
 import com.lightstreamer.adapters.remote.ItemEventListener;
 import com.lightstreamer.adapters.remote.SubscriptionException;
+import com.lightstreamer.chatadapterspringboot.ChatEvents.ClearSnapshotEvent;
+import com.lightstreamer.chatadapterspringboot.ChatEvents.DispatchEvent;
+import com.lightstreamer.chatadapterspringboot.ChatEvents.EnqueueEvent;
 
 public class ChatDataAdapter implements DataProvider {
 
     private static final int DEFAULT_FLUSH_INTERVAL = 30 * 60 * 1000;
 
+    private static final int DEFAULT_HISTORY_SIZE = 10000;
+
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private static final String ITEM_NAME = "chat_room";
 
+    /**
+     * Prefix of the items that resume the chat room after a given message;
+     * the item name is completed by the "seq" field of the last message
+     * received, as in "chat_room@1234". The snapshot of such items only
+     * carries the subsequent messages still retained in the history.
+     */
+    private static final String RESUME_ITEM_PREFIX = ITEM_NAME + "@";
+
+    /**
+     * Prefix of the per-session items that carry the results of the searches
+     * issued by a session; the item name is completed by the session ID.
+     */
+    public static final String SEARCH_ITEM_PREFIX = "search_";
+
     /**
      * A static map, to be used by the Metadata Adapter to find the data
      * adapter instance; this allows the Metadata Adapter to forward client
@@ -40,13 +62,30 @@ public class ChatDataAdapter implements DataProvider {
     /**
      * Used to enqueue the calls to the listener.
      */
-    private final ExecutorService executor;
+    private final DispatchEngine dispatcher;
 
     /**
      * An object representing the subscription.
      */
     private boolean subscribed;
 
+    /**
+     * The currently subscribed search result items.
+     */
+    private final Set<String> searchItems = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The currently subscribed resume items.
+     */
+    private final Set<String> resumeItems = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Recent messages, kept to be searched and to resume the chat room.
+     * Its lock also guards the subscriptions to the chat room items, so
+     * that the tasks for snapshots and updates are enqueued in order.
+     */
+    private final ChatHistory history;
+
     /**
      * Boolean flag for periodic flush of snapshot (call clearSnaphot).
      */
@@ -68,9 +107,9 @@ public class ChatDataAdapter implements DataProvider {
 
     private ItemEventListener listener;
 
-    public ChatDataAdapter(String name, String flushi) {
+    public ChatDataAdapter(String name, String flushi, String historyi, DispatchEngine engine) {
 
-        this.executor = Executors.newSingleThreadExecutor();
+        this.dispatcher = engine;
 
         this.name = name;
 
@@ -89,6 +128,18 @@ public class ChatDataAdapter implements DataProvider {
             this.flushInterval = DEFAULT_FLUSH_INTERVAL;
         }
 
+        int size = 0;
+
+        try {
+            size = Integer.parseInt(historyi);
+        } catch (NumberFormatException nfe) {
+            // ops....
+        }
+        if (size <= 0) {
+            size = DEFAULT_HISTORY_SIZE;
+        }
+        this.history = new ChatHistory(size);
+
         this.messagesPresence = false;
 
         System.out.println("ChatDataAdapter initialized");
@@ -108,7 +159,7 @@ public class ChatDataAdapter implements DataProvider {
 
     @Override
     public boolean isSnapshotAvailable(String arg0) throws SubscriptionException {
-        return false;
+        return arg0.startsWith(RESUME_ITEM_PREFIX);
     }
 
     @Override
@@ -117,18 +168,91 @@ public class ChatDataAdapter implements DataProvider {
     }
 
     @Override
-    public void subscribe(String item) throws SubscriptionException, FailureException {
+    public void subscribe(final String item) throws SubscriptionException, FailureException {
+
+        if (item.startsWith(SEARCH_ITEM_PREFIX)) {
+            // search results will be sent upon request
+            searchItems.add(item);
+            return;
+        }
+
+        if (item.startsWith(RESUME_ITEM_PREFIX)) {
+            long seq;
+            try {
+                seq = Long.parseLong(item.substring(RESUME_ITEM_PREFIX.length()));
+            } catch (NumberFormatException nfe) {
+                throw new SubscriptionException("No such item");
+            }
+
+            synchronized (history) {
+                final List<Map<String, String>> delta = history.since(seq);
+
+                System.out.println("Resuming from " + seq + ": " + delta.size() + " messages");
+
+                final long enqueued = System.nanoTime();
+                Runnable snapshotTask = new Runnable() {
+                    public void run() {
+                        DispatchEvent event = new DispatchEvent();
+                        event.begin();
+                        for (Map<String, String> message : delta) {
+                            listener.update(item, message, true);
+                        }
+                        listener.endOfSnapshot(item);
+                        event.item = item;
+                        event.queueWait = event.isEnabled() ? System.nanoTime() - enqueued : 0;
+                        event.commit();
+                    }
+                };
+
+                // the snapshot is enqueued before any subsequent message
+                enqueue(item, snapshotTask);
+
+                resumeItems.add(item);
+                updateFlushTimer();
+            }
+            return;
+        }
 
         if (!item.equals(ITEM_NAME)) {
-            // only one item for a unique chat room is managed
+            // only one chat room is managed
             throw new SubscriptionException("No such item");
         }
 
         assert (subscribed == false);
 
-        subscribed = true;
+        synchronized (history) {
+            subscribed = true;
+            updateFlushTimer();
+        }
+    }
+
+    @Override
+    public void unsubscribe(String arg0) throws SubscriptionException, FailureException {
+        if (arg0.startsWith(SEARCH_ITEM_PREFIX)) {
+            searchItems.remove(arg0);
+            return;
+        }
+
+        synchronized (history) {
+            if (arg0.startsWith(RESUME_ITEM_PREFIX)) {
+                resumeItems.remove(arg0);
+            } else {
+                assert (subscribed == true);
 
-        if (this.flushSnapshot) {
+                subscribed = false;
+            }
+            updateFlushTimer();
+        }
+    }
+
+    /**
+     * Starts or stops the periodic flush of the snapshot, depending on
+     * whether any chat room item is subscribed.
+     */
+    private void updateFlushTimer() {
+        boolean active = subscribed || !resumeItems.isEmpty();
+
+        if (active && myTimer == null && this.flushSnapshot) {
             // Start Thread for periodic flush of the snapshot.
             myTimer = new Timer(true);
 
@@ -138,66 +262,80 @@ public class ChatDataAdapter implements DataProvider {
                     clearHistory();
                 }
             }, new Date(System.currentTimeMillis() + this.flushInterval), this.flushInterval);
-        }
-    }
-
-    @Override
-    public void unsubscribe(String arg0) throws SubscriptionException, FailureException {
-        assert (subscribed == true);
-
-        subscribed = false;
 
-        if (myTimer != null) {
+        } else if (!active && myTimer != null) {
             myTimer.cancel();
             myTimer.purge();
             myTimer = null;
         }
     }
 
+    /**
+     * Returns the currently subscribed chat room items; to be invoked
+     * while holding the history lock.
+     */
+    private String[] chatItems() {
+        List<String> items = new ArrayList<String>(resumeItems.size() + 1);
+        if (subscribed) {
+            items.add(ITEM_NAME);
+        }
+        items.addAll(resumeItems);
+        return items.toArray(new String[0]);
+    }
+
     // used in case of flush_snapshot set to true.
     public void clearHistory() {
 
         System.out.println("Clear snapshot triggered: " + this.subscribed);
 
-        if (this.subscribed == false || this.messagesPresence == false) {
-            return;
-        }
+        synchronized (history) {
+            if ((this.subscribed == false && resumeItems.isEmpty()) || this.messagesPresence == false) {
+                return;
+            }
 
-        System.out.println("Clear snapshot ran.");
-        // If we have a listener create a new Runnable to be used as a task to pass the
-        // event to the listener
-        Runnable updateTask = new Runnable() {
-            public void run() {
+            System.out.println("Clear snapshot ran.");
+            final String[] targets = chatItems();
+            final long enqueued = System.nanoTime();
+            // If we have a listener create a new Runnable to be used as a task to pass the
+            // event to the listener
+            Runnable updateTask = new Runnable() {
+                public void run() {
 
-                System.out.println("Clear snapshot run -2- ");
+                    System.out.println("Clear snapshot run -2- ");
 
-                // call the update on the listener;
-                // in case the listener has just been detached,
-                // the listener should detect the case
-                listener.clearSnapshot(ITEM_NAME);
+                    ClearSnapshotEvent event = new ClearSnapshotEvent();
+                    event.begin();
+                    // call the update on the listener;
+                    // in case the listener has just been detached,
+                    // the listener should detect the case
+                    for (String target : targets) {
+                        listener.clearSnapshot(target);
+                    }
+                    event.item = ITEM_NAME;
+                    event.queueWait = event.isEnabled() ? System.nanoTime() - enqueued : 0;
+                    event.commit();
 
-                System.out.println("Clear snapshot run -3- ");
+                    System.out.println("Clear snapshot run -3- ");
 
-            }
-        };
+                }
+            };
 
-        executor.execute(updateTask);
+            enqueue(ITEM_NAME, updateTask);
 
-        this.messagesPresence = false;
+            this.messagesPresence = false;
+        }
     }
 
     /**
-     * Accepts message submission for the unique chat room.
-     * The sender is identified by an IP address and a nickname.
+     * Tells whether a message would be accepted by {@link #sendMessage},
+     * so that it can be checked further before being sent.
      */
-    public boolean sendMessage(String IP, String nick, String message) {
+    public boolean isValidMessage(String IP, String nick, String message) {
         final Object currSubscribed = subscribed;
         if (currSubscribed == null) {
             return false;
         }
 
-        // NB no anti-flood control
-
         if (message == null || message.length() == 0) {
             System.out.println("Received empty or null message");
             return false;
@@ -210,6 +348,19 @@ public class ChatDataAdapter implements DataProvider {
             System.out.println("Received empty or null IP");
             return false;
         }
+        return true;
+    }
+
+    /**
+     * Accepts message submission for the unique chat room.
+     * The sender is identified by an IP address and a nickname.
+     */
+    public boolean sendMessage(String IP, String nick, String message) {
+        if (!isValidMessage(IP, nick, message)) {
+            return false;
+        }
+
+        // NB no anti-flood control
 
         this.messagesPresence = true;
 
@@ -226,20 +377,91 @@ public class ChatDataAdapter implements DataProvider {
         update.put("raw_timestamp", String.valueOf(raw_timestamp));
         update.put("IP", IP);
 
-        // If we have a listener create a new Runnable to be used as a task to pass the
-        // new update to the listener
+        synchronized (history) {
+            // assigns the "seq" field, which allows a client to resume
+            // the chat room after this message
+            history.add(update);
+
+            final String[] targets = chatItems();
+            final long enqueued = System.nanoTime();
+            // If we have a listener create a new Runnable to be used as a task to pass the
+            // new update to the listener
+            Runnable updateTask = new Runnable() {
+                public void run() {
+                    DispatchEvent event = new DispatchEvent();
+                    event.begin();
+                    // call the update on the listener;
+                    // in case the listener has just been detached,
+                    // the listener should detect the case
+                    for (String target : targets) {
+                        listener.update(target, update, false);
+                    }
+                    event.item = ITEM_NAME;
+                    event.queueWait = event.isEnabled() ? System.nanoTime() - enqueued : 0;
+                    event.commit();
+                }
+            };
+
+            // We add the task on the dispatcher to pass to the listener the actual status;
+            // the order of the tasks matches the order of the "seq" fields.
+            // Note that a ring buffer dispatcher, when full, makes us wait
+            // here for a free slot while holding the history lock, hence
+            // subscriptions, searches and snapshot flushes wait as well;
+            // the ring size should cover the expected bursts
+            enqueue(ITEM_NAME, updateTask);
+        }
+
+        return true;
+    }
+
+    /**
+     * Searches the recent messages for the given word and sends the results
+     * on the search item of the requesting session, replacing the results
+     * of any previous search.
+     */
+    public boolean search(String session, String term) {
+        final String item = SEARCH_ITEM_PREFIX + session;
+        if (!searchItems.contains(item)) {
+            System.out.println("Search requested without subscription: " + item);
+            return false;
+        }
+
+        if (term == null || term.trim().length() == 0) {
+            System.out.println("Received empty or null search term");
+            return false;
+        }
+
+        final List<Map<String, String>> results = history.search(term, MAX_SEARCH_RESULTS);
+
+        System.out.println("Search for " + term + " from " + session + ": " + results.size() + " results");
+
+        final long enqueued = System.nanoTime();
         Runnable updateTask = new Runnable() {
             public void run() {
-                // call the update on the listener;
-                // in case the listener has just been detached,
-                // the listener should detect the case
-                listener.update(ITEM_NAME, update, false);
+                DispatchEvent event = new DispatchEvent();
+                event.begin();
+                listener.clearSnapshot(item);
+                for (Map<String, String> result : results) {
+                    HashMap<String, String> update = new HashMap<String, String>(result);
+                    update.put("term", term);
+                    listener.update(item, update, false);
+                }
+                event.item = item;
+                event.queueWait = event.isEnabled() ? System.nanoTime() - enqueued : 0;
+                event.commit();
             }
         };
 
-        // We add the task on the executor to pass to the listener the actual status
-        executor.execute(updateTask);
+        enqueue(item, updateTask);
 
         return true;
     }
+
+    private void enqueue(String item, Runnable task) {
+        EnqueueEvent event = new EnqueueEvent();
+        event.begin();
+        dispatcher.execute(task);
+        event.item = item;
+        event.commit();
+    }
 }
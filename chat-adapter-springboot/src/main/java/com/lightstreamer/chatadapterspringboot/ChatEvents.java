@@ -0,0 +1,102 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for the stages of the message pipeline,
+ * from the client message notification to the update sent to the listener.
+ * The events are disabled by default, hence they cost next to nothing
+ * until a recording enables them, for instance through:
+ * <pre>
+ * jcmd &lt;pid&gt; JFR.start settings=chat.jfc
+ * </pre>
+ * where chat.jfc, provided in the project folder, enables the
+ * "com.lightstreamer.chat.*" events.
+ */
+public final class ChatEvents {
+
+    private ChatEvents() {
+    }
+
+    @Name("com.lightstreamer.chat.Ingress")
+    @Label("Message Ingress")
+    @Description("Handling of a client message by the Metadata Adapter")
+    @Category({ "Lightstreamer", "Chat" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static class IngressEvent extends Event {
+
+        @Label("Session")
+        String session;
+
+        @Label("Message Length")
+        int length;
+    }
+
+    @Name("com.lightstreamer.chat.Validation")
+    @Label("Message Validation")
+    @Description("Parsing and validation of a client message")
+    @Category({ "Lightstreamer", "Chat" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ValidationEvent extends Event {
+
+        @Label("Session")
+        String session;
+
+        @Label("Command")
+        String command;
+    }
+
+    @Name("com.lightstreamer.chat.Enqueue")
+    @Label("Update Enqueue")
+    @Description("Submission of a task to the Data Adapter executor")
+    @Category({ "Lightstreamer", "Chat" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static class EnqueueEvent extends Event {
+
+        @Label("Item")
+        String item;
+    }
+
+    @Name("com.lightstreamer.chat.Dispatch")
+    @Label("Update Dispatch")
+    @Description("Call to the listener for an update")
+    @Category({ "Lightstreamer", "Chat" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static class DispatchEvent extends Event {
+
+        @Label("Item")
+        String item;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+    @Name("com.lightstreamer.chat.ClearSnapshot")
+    @Label("Clear Snapshot")
+    @Description("Call to the listener for a snapshot flush")
+    @Category({ "Lightstreamer", "Chat" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ClearSnapshotEvent extends Event {
+
+        @Label("Item")
+        String item;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a bounded window of the most recent chat messages, together with an
+ * inverted index from each word of the message text, and from the whole
+ * nick, to the messages containing it.
+ * The index is maintained incrementally: postings are appended as messages
+ * are added and evicted as the related messages age out of the window.
+ * A search examines a bounded number of candidate messages, hence its cost
+ * does not grow with the window, as the lock it holds is also needed to
+ * add messages.
+ * Each message is also assigned a progressive, which allows for retrieving
+ * the messages that follow a given one.
+ * All methods are synchronized, as messages are added by the Data Adapter
+ * while searches are triggered by the Metadata Adapter.
+ */
+public class ChatHistory {
+
+    /**
+     * A message retained in the window, with the distinct terms it was
+     * indexed with, needed to remove its postings upon eviction.
+     */
+    private static final class Entry {
+
+        final long seq;
+
+        final Map<String, String> fields;
+
+        final String[] terms;
+
+        Entry(long seq, Map<String, String> fields, String[] terms) {
+            this.seq = seq;
+            this.fields = fields;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * The progressives of the retained messages that contain a term, in
+     * ascending order, kept in a circular buffer that grows as needed.
+     */
+    private static final class Postings {
+
+        /**
+         * The term, shared by the messages that contain it.
+         */
+        final String term;
+
+        private long[] seqs = new long[4];
+
+        private int first;
+
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(long seq) {
+            if (size == seqs.length) {
+                long[] grown = new long[seqs.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = get(i);
+                }
+                seqs = grown;
+                first = 0;
+            }
+            seqs[(first + size) & (seqs.length - 1)] = seq;
+            size++;
+        }
+
+        /**
+         * Returns the i-th progressive, starting from the oldest one.
+         */
+        long get(int i) {
+            return seqs[(first + i) & (seqs.length - 1)];
+        }
+
+        void removeFirst() {
+            first = (first + 1) & (seqs.length - 1);
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Maximum number of candidate messages examined by a search; when the
+     * words searched for are all common, older matches may be missed.
+     */
+    static final int MAX_CANDIDATES = 10000;
+
+    /**
+     * Prefix of the term that indexes the nick; it cannot occur in the words
+     * of a text, which only contain letters and digits.
+     */
+    private static final String NICK_PREFIX = "@";
+
+    /**
+     * Circular buffer of the retained messages; the oldest one is at
+     * the head position.
+     */
+    private final Entry[] window;
+
+    private int head;
+
+    private int count;
+
+    /**
+     * Progressive assigned to the next message added; the first message
+     * is assigned 1.
+     */
+    private long nextSeq;
+
+    /**
+     * For each term, the progressives of the retained messages that contain
+     * it, in ascending order; hence the oldest posting is always the first.
+     */
+    private final HashMap<String, Postings> postings = new HashMap<String, Postings>();
+
+    public ChatHistory(int capacity) {
+        this.window = new Entry[capacity];
+        this.head = 0;
+        this.count = 0;
+        this.nextSeq = 1;
+    }
+
+    /**
+     * Adds a message to the window, evicting the oldest one if the window
+     * is full. The assigned progressive is also stored in the "seq" field
+     * of the message and returned.
+     */
+    public synchronized long add(Map<String, String> fields) {
+        if (count == window.length) {
+            evictOldest();
+        }
+
+        // the nick is the user agent of the sender, hence it is indexed
+        // as a whole, not to add many common terms to each message
+        Set<String> terms = new LinkedHashSet<String>();
+        String nick = nickTerm(fields.get("nick"));
+        if (nick != null) {
+            terms.add(nick);
+        }
+        tokenize(fields.get("message"), terms);
+
+        Entry entry = new Entry(nextSeq++, fields, terms.toArray(new String[terms.size()]));
+        fields.put("seq", String.valueOf(entry.seq));
+        window[(head + count) % window.length] = entry;
+        count++;
+
+        for (int i = 0; i < entry.terms.length; i++) {
+            Postings list = postings.get(entry.terms[i]);
+            if (list == null) {
+                list = new Postings(entry.terms[i]);
+                postings.put(list.term, list);
+            }
+            list.add(entry.seq);
+            // retain a single copy of each term
+            entry.terms[i] = list.term;
+        }
+        return entry.seq;
+    }
+
+    /**
+     * Returns the retained messages that follow the one with the given
+     * progressive, in order. If some of them have already been evicted,
+     * only the retained ones are returned; the caller can detect the gap
+     * through the "seq" field of the first message returned.
+     * A progressive not yet assigned cannot refer to the current history
+     * (for instance, it was received before a restart), hence all the
+     * retained messages are returned.
+     */
+    public synchronized List<Map<String, String>> since(long seq) {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        long oldestSeq = window[head].seq;
+        long from = seq + 1;
+        if (from < oldestSeq || seq >= nextSeq) {
+            from = oldestSeq;
+        }
+
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        for (long s = from; s < nextSeq; s++) {
+            results.add(window[(int) ((head + (s - oldestSeq)) % window.length)].fields);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the retained messages sent by the given nick or, if there are
+     * none, the ones whose text contains all the words of the given query,
+     * starting from the most recent one. The query is split into words as
+     * the texts are. Only the most recent {@link #MAX_CANDIDATES} messages
+     * containing the rarest word are examined.
+     */
+    public synchronized List<Map<String, String>> search(String query, int maxResults) {
+        Postings byNick = postings.get(nickTerm(query));
+        if (byNick != null) {
+            return collect(byNick, new String[0], maxResults);
+        }
+
+        Set<String> terms = new LinkedHashSet<String>();
+        tokenize(query, terms);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // scan the shortest postings list, checking the other terms on
+        // the terms of each candidate message
+        Postings shortest = null;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            if (shortest == null || list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        return collect(shortest, terms.toArray(new String[terms.size()]), maxResults);
+    }
+
+    private List<Map<String, String>> collect(Postings candidates, String[] terms, int maxResults) {
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        // all postings refer to retained messages, hence they can be
+        // located in the window by their distance from the oldest one
+        long oldestSeq = window[head].seq;
+        int last = Math.max(candidates.size() - MAX_CANDIDATES, 0);
+        for (int i = candidates.size() - 1; i >= last && results.size() < maxResults; i--) {
+            long seq = candidates.get(i);
+            Entry entry = window[(int) ((head + (seq - oldestSeq)) % window.length)];
+            if (containsAll(entry.terms, terms)) {
+                results.add(entry.fields);
+            }
+        }
+        return results;
+    }
+
+    private static boolean containsAll(String[] terms, String[] required) {
+        for (String term : required) {
+            boolean found = false;
+            for (String other : terms) {
+                if (other.equals(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void evictOldest() {
+        Entry oldest = window[head];
+        window[head] = null;
+        head = (head + 1) % window.length;
+        count--;
+
+        for (String term : oldest.terms) {
+            Postings list = postings.get(term);
+            // being the oldest message, its posting is the first in the list
+            list.removeFirst();
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static String nickTerm(String nick) {
+        if (nick == null || nick.trim().length() == 0) {
+            return null;
+        }
+        return NICK_PREFIX + nick.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void tokenize(String text, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() > 0) {
+                terms.add(word);
+            }
+        }
+    }
+
+}
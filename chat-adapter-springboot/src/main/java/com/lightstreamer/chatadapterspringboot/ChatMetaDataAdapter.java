@@ -23,25 +23,23 @@ import com.lightstreamer.adapters.remote.NotificationException;
 import com.lightstreamer.adapters.remote.SchemaException;
 import com.lightstreamer.adapters.remote.TableInfo;
 import com.lightstreamer.adapters.remote.metadata.LiteralBasedProvider;
+import com.lightstreamer.chatadapterspringboot.ChatEvents.IngressEvent;
+import com.lightstreamer.chatadapterspringboot.ChatEvents.ValidationEvent;
 
 public class ChatMetaDataAdapter extends LiteralBasedProvider {
 
-    /**
-     * Keeps the client context information supplied by Lightstreamer on the
-     * new session notifications.
-     * Session information is needed to uniquely identify each client.
-     */
-    private ConcurrentHashMap<String, Map<String, String>> sessions = new ConcurrentHashMap<String, Map<String, String>>();
+    private static final int DEFAULT_DUPLICATE_THRESHOLD = 3;
+
+    private static final int DEFAULT_DUPLICATE_CAPACITY = 10000;
+
+    private static final int DEFAULT_DUPLICATE_MIN_LENGTH = 16;
 
     /**
-     * Used as a Set, to keep unique identifiers for the currently connected
-     * clients.
-     * Each client is uniquely identified by the client IP address and the
-     * HTTP user agent; in case of conflicts, a custom progressive is appended
-     * to the user agent. This set lists the concatenations of the current
-     * IP and user agent pairs, to help determining uniqueness.
+     * Keeps the client context information of the open sessions and the
+     * unique identifiers of the related clients.
      */
-    private ConcurrentHashMap<String, Object> uaIpPairs = new ConcurrentHashMap<String, Object>();
+    private final ChatSessions sessions = new ChatSessions();
+
 
     /**
      * The associated feed to which messages will be forwarded;
@@ -49,10 +47,64 @@ public class ChatMetaDataAdapter extends LiteralBasedProvider {
      */
     private volatile ChatDataAdapter chatFeed;
 
+    /**
+     * Used to reject the texts repeated too many times in the chat room,
+     * even if sent from different sessions; null if disabled.
+     */
+    private final DuplicateFilter duplicateFilter;
+
     private String name;
 
-    public ChatMetaDataAdapter(String name2) {
+    public ChatMetaDataAdapter(String name2, String dupwindow, String dupthreshold, String dupcapacity,
+            String dupminlength) {
         this.name = name2;
+
+        long window = 0;
+
+        try {
+            window = Long.parseLong(dupwindow);
+        } catch (NumberFormatException nfe) {
+            System.out.println("Invalid duplicates window, check disabled: " + dupwindow);
+        }
+
+        int threshold = 0;
+
+        try {
+            threshold = Integer.parseInt(dupthreshold);
+        } catch (NumberFormatException nfe) {
+            // ops....
+        }
+        if (threshold <= 0) {
+            threshold = DEFAULT_DUPLICATE_THRESHOLD;
+        }
+
+        int capacity = 0;
+
+        try {
+            capacity = Integer.parseInt(dupcapacity);
+        } catch (NumberFormatException nfe) {
+            // ops....
+        }
+        if (capacity <= 0) {
+            capacity = DEFAULT_DUPLICATE_CAPACITY;
+        }
+
+        int minLength = -1;
+
+        try {
+            minLength = Integer.parseInt(dupminlength);
+        } catch (NumberFormatException nfe) {
+            // ops....
+        }
+        if (minLength < 0) {
+            minLength = DEFAULT_DUPLICATE_MIN_LENGTH;
+        }
+
+        if (window > 0) {
+            this.duplicateFilter = new DuplicateFilter(window, threshold, capacity, minLength);
+        } else {
+            this.duplicateFilter = null;
+        }
     }
 
     @Override
@@ -68,89 +120,91 @@ public class ChatMetaDataAdapter extends LiteralBasedProvider {
     public void notifyUserMessage(String user, String session, String message)
             throws NotificationException, CreditsException {
 
-        // we won't introduce blocking operations, hence we can proceed inline
+        // the Remote Server invokes this method on its own thread pool
+        // (configured through the "lightstreamer.metadata.pool.size" system
+        // property), so the processing of a message does not hold back the
+        // subsequent requests and we can proceed inline
 
         if (message == null) {
             System.out.println("Null message received");
             throw new NotificationException("Null message received");
         }
 
-        // Split the string on the | character
-        // The message must be of the form "CHAT|message"
-        String[] pieces = message.split("\\|");
-
-        this.loadChatFeed();
-        this.handleChatMessage(pieces, message, session);
+        IngressEvent event = new IngressEvent();
+        event.begin();
+        try {
+            // Split the string on the | character
+            // The message must be of the form "CHAT|message" or "SEARCH|term"
+            String[] pieces = message.split("\\|");
+
+            this.loadChatFeed();
+            this.handleChatMessage(pieces, message, session);
+        } finally {
+            event.session = session;
+            event.length = message.length();
+            event.commit();
+        }
 
         return;
     }
 
+    /**
+     * Table notifications are needed to check the subscriptions to the
+     * search items.
+     */
     @Override
-    public void notifyNewSession(String user, String session, Map sessionInfo)
+    public boolean wantsTablesNotification(String user) {
+        return true;
+    }
+
+    /**
+     * Prevents a session from subscribing to the search results of another
+     * session, as search items are named after the session ID.
+     */
+    @Override
+    public void notifyNewTables(String user, String session, TableInfo[] tables)
             throws CreditsException, NotificationException {
+        for (TableInfo table : tables) {
+            String[] items = table.getSubscribedItems();
+            if (items == null) {
+                continue;
+            }
+            for (String item : items) {
+                if (item.startsWith(ChatDataAdapter.SEARCH_ITEM_PREFIX)
+                        && !item.equals(ChatDataAdapter.SEARCH_ITEM_PREFIX + session)) {
+                    System.out.println("Subscription to search item of another session refused: " + item);
+                    throw new CreditsException(-2, "Search item not owned by the session",
+                            "Search item not owned by the session");
+                }
+            }
+        }
+    }
 
-        // we can't have duplicate sessions
-        assert (!sessions.containsKey(session));
+    @Override
+    public void notifyNewSession(String user, String session, Map sessionInfo)
+            throws CreditsException, NotificationException {
 
         /*
-         * If needed, modify the user agent and store it directly
-         * in the session infos object.
+         * Register the session details; if needed, the user agent is
+         * modified and stored directly in the session infos object.
          * Note: we are free to change and store the received object.
          */
-        uniquelyIdentifyClient(sessionInfo);
-
-        // Register the session details on the sessions HashMap.
-        sessions.put(session, sessionInfo);
+        if (!sessions.open(session, sessionInfo)) {
+            // we can't have duplicate sessions
+            System.out.println("Duplicate session received: " + session);
+            throw new NotificationException("Duplicate session");
+        }
 
     }
 
     @Override
     public void notifySessionClose(String session) throws NotificationException {
-        // the session must exist to be closed
-        assert (sessions.containsKey(session));
-
-        // we have to remove session information from the session HashMap
-        // and from the pairs "Set"
-
-        Map<String, String> sessionInfo = sessions.get(session);
-        String ua = sessionInfo.get("USER_AGENT");
-        String IP = sessionInfo.get("REMOTE_IP");
-
-        uaIpPairs.remove(IP + " " + ua);
-        sessions.remove(session);
-    }
-
-    /**
-     * Modifies the clientContext to provide a unique identification
-     * for the client session.
-     */
-    private void uniquelyIdentifyClient(Map clientContext) {
-
-        // extract user agent and ip from session infos
-        String ua = (String) clientContext.get("USER_AGENT");
-        String ip = (String) clientContext.get("REMOTE_IP");
-
-        /*
-         * we need to ensure that each pair IP-User Agent is unique so that
-         * the sender can be identified on the client, if such pair is not
-         * unique we add a counter on the user agent string
-         */
-
-        String count = "";
-        int c = 0;
-        // synchronize to ensure that we do not generate two identical pairs
-        synchronized (uaIpPairs) {
-            while (uaIpPairs.containsKey(ip + " " + ua + " " + count)) {
-                c++;
-                count = "[" + c + "]";
-            }
-
-            ua = ua + " " + count;
-
-            uaIpPairs.put(ip + " " + ua, new Object());
+        // we have to remove session information from the sessions map
+        // and release the related client identifier
+        if (!sessions.close(session)) {
+            // the session close notification may have been duplicated
+            System.out.println("Close received for non-existent session: " + session);
         }
-
-        clientContext.put("USER_AGENT", ua);
     }
 
     private void loadChatFeed() throws CreditsException {
@@ -176,30 +230,56 @@ public class ChatMetaDataAdapter extends LiteralBasedProvider {
         }
     }
 
-    private void handleChatMessage(String[] pieces, String message, String session) throws NotificationException {
+    private void handleChatMessage(String[] pieces, String message, String session)
+            throws NotificationException, CreditsException {
         // extract session infos
 
-        if (pieces.length != 2) {
-            System.out.println("Wrong message received: " + message);
-            throw new NotificationException("Wrong message received");
-        }
+        Map<String, String> sessionInfo;
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            if (pieces.length != 2) {
+                System.out.println("Wrong message received: " + message);
+                throw new NotificationException("Wrong message received");
+            }
 
-        Map<String, String> sessionInfo = sessions.get(session);
-        if (sessionInfo == null) {
-            System.out.println("Message received from non-existent session: " + message);
-            throw new NotificationException("Wrong message received");
+            sessionInfo = sessions.get(session);
+            if (sessionInfo == null) {
+                System.out.println("Message received from non-existent session: " + message);
+                throw new NotificationException("Wrong message received");
+            }
+        } finally {
+            event.session = session;
+            event.command = pieces.length > 0 ? pieces[0] : null;
+            event.commit();
         }
         // read from infos the IP and the user agent of the user
         String ua = sessionInfo.get("USER_AGENT");
         String ip = sessionInfo.get("REMOTE_IP");
 
         // Check the message, it must be of the form "CHAT|message"
+        // or "SEARCH|term"
         if (pieces[0].equals("CHAT")) {
+            // only valid messages are counted as repetitions
+            if (!this.chatFeed.isValidMessage(ip, ua, pieces[1])) {
+                System.out.println("Wrong message received: " + message);
+                throw new NotificationException("Wrong message received");
+            }
+            if (this.duplicateFilter != null && !this.duplicateFilter.admit(pieces[1])) {
+                System.out.println("Repeated message discarded: " + message);
+                throw new CreditsException(-1, "Repeated message", "Message already sent too many times");
+            }
             // and send it to the feed
             if (!this.chatFeed.sendMessage(ip, ua, pieces[1])) {
                 System.out.println("Wrong message received: " + message);
                 throw new NotificationException("Wrong message received");
             }
+        } else if (pieces[0].equals("SEARCH")) {
+            // the results are sent to the search item of the session
+            if (!this.chatFeed.search(session, pieces[1])) {
+                System.out.println("Wrong search received: " + message);
+                throw new NotificationException("Wrong search received");
+            }
         } else {
             System.out.println("Wrong message received: " + message);
             throw new NotificationException("Wrong message received");
@@ -0,0 +1,106 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the client context information of the currently open sessions,
+ * together with the unique identifier assigned to each client.
+ * Registration and removal of a session update both maps under the same
+ * lock and the client context is stored as a private copy, so that the
+ * maps cannot get out of sync.
+ */
+public class ChatSessions {
+
+    /**
+     * Keeps the client context information supplied by Lightstreamer on the
+     * new session notifications.
+     * Session information is needed to uniquely identify each client.
+     */
+    private final ConcurrentHashMap<String, Map<String, String>> sessions = new ConcurrentHashMap<String, Map<String, String>>();
+
+    /**
+     * Keeps unique identifiers for the currently connected clients,
+     * each one mapped to its owner session.
+     * Each client is uniquely identified by the client IP address and the
+     * HTTP user agent; in case of conflicts, a custom progressive is appended
+     * to the user agent. This map lists the concatenations of the current
+     * IP and user agent pairs, to help determining uniqueness.
+     */
+    private final ConcurrentHashMap<String, String> uaIpPairs = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Registers a new session; if needed, modifies the user agent in the
+     * supplied client context, to provide a unique identification for the
+     * client. A copy of the client context is stored, so that later changes
+     * by the caller cannot affect the release of the identifier.
+     * Returns false if the session was already registered.
+     */
+    public synchronized boolean open(String session, Map<String, String> clientContext) {
+        if (sessions.containsKey(session)) {
+            return false;
+        }
+
+        // extract user agent and ip from session infos
+        String ua = clientContext.get("USER_AGENT");
+        String ip = clientContext.get("REMOTE_IP");
+
+        /*
+         * we need to ensure that each pair IP-User Agent is unique so that
+         * the sender can be identified on the client, if such pair is not
+         * unique we add a counter on the user agent string
+         */
+        String count = "";
+        int c = 0;
+        while (uaIpPairs.containsKey(pairKey(ip, ua + " " + count))) {
+            c++;
+            count = "[" + c + "]";
+        }
+
+        ua = ua + " " + count;
+
+        uaIpPairs.put(pairKey(ip, ua), session);
+        clientContext.put("USER_AGENT", ua);
+
+        sessions.put(session, new HashMap<String, String>(clientContext));
+        return true;
+    }
+
+    /**
+     * Removes a session and releases its client identifier.
+     * Returns false if the session was not registered.
+     */
+    public synchronized boolean close(String session) {
+        Map<String, String> sessionInfo = sessions.remove(session);
+        if (sessionInfo == null) {
+            return false;
+        }
+
+        // the stored user agent is the one made unique upon registration
+        String key = pairKey(sessionInfo.get("REMOTE_IP"), sessionInfo.get("USER_AGENT"));
+        uaIpPairs.remove(key, session);
+        return true;
+    }
+
+    /**
+     * Returns the client context of a session, or null if the session
+     * is not registered.
+     */
+    public Map<String, String> get(String session) {
+        return sessions.get(session);
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public int identifierCount() {
+        return uaIpPairs.size();
+    }
+
+    private static String pairKey(String ip, String ua) {
+        return ip + " " + ua;
+    }
+
+}
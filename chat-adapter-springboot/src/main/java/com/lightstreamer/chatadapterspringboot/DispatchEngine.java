@@ -0,0 +1,39 @@
+package com.lightstreamer.chatadapterspringboot;
+
+/**
+ * Runs the tasks that invoke the listener, one at a time and in the
+ * order in which they are submitted.
+ */
+public interface DispatchEngine {
+
+    public static final String EXECUTOR = "executor";
+
+    public static final String RING_BUFFER = "ringbuffer";
+
+    void execute(Runnable task);
+
+    /**
+     * Creates the engine of the given type; unknown types fall back to
+     * the executor based one.
+     *
+     * @param type either "executor" or "ringbuffer".
+     * @param ringSize capacity of the ring buffer, rounded up to a power of 2.
+     * @param waitStrategy one of "spin", "yield" or "park", for the
+     * ring buffer.
+     */
+    public static DispatchEngine create(String type, String ringSize, String waitStrategy) {
+        if (RING_BUFFER.equalsIgnoreCase(type)) {
+            int size = 0;
+
+            try {
+                size = Integer.parseInt(ringSize);
+            } catch (NumberFormatException nfe) {
+                // ops....
+            }
+            return new RingBufferDispatchEngine(size, RingBufferDispatchEngine.WaitStrategy.of(waitStrategy));
+        } else {
+            return new ExecutorDispatchEngine();
+        }
+    }
+
+}
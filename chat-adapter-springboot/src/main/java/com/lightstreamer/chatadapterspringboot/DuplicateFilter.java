@@ -0,0 +1,151 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects message texts repeated too many times within a sliding time
+ * window, regardless of the sessions that send them.
+ * Short texts, such as "hi" or "ok", are legitimately repeated by many
+ * users, hence they are neither counted nor rejected.
+ * Texts are counted through compact fingerprints in a count-min sketch,
+ * hence memory and per-message cost are constant; the counts may only be
+ * overestimated, which may cause a legitimate text to be rejected.
+ * The sketch is sized on the expected number of distinct texts in a window:
+ * each row gets 4 counters per text. With a threshold of 3, no wrong
+ * rejection was observed up to 4 times that load, whereas beyond it the
+ * rate grows quickly (about 0.01% at 6 times, 0.2% at 8 times and 3% at
+ * 12 times the expected load).
+ * Memory use is 2 x 4 x 4 x capacity ints (about 1.3 MB for 10000 texts).
+ * The window is approximated by two sketches, each one covering half of
+ * it: when a half elapses, the older sketch is cleared and takes the role
+ * of the current one.
+ */
+public class DuplicateFilter {
+
+    private static final int DEPTH = 4;
+
+    private static final int COUNTERS_PER_TEXT = 4;
+
+    private final int width;
+
+    private final long halfWindow;
+
+    private final int threshold;
+
+    private final int minLength;
+
+    private final LongSupplier clock;
+
+    private int[][] current;
+
+    private int[][] previous;
+
+    private long rotateAt;
+
+    /**
+     * @param window duration (in millis) of the sliding window.
+     * @param threshold number of times a text is admitted within the window.
+     * @param capacity expected number of distinct texts within the window.
+     * @param minLength number of characters, spaces excluded, below which
+     * texts are always admitted.
+     */
+    public DuplicateFilter(long window, int threshold, int capacity, int minLength) {
+        this(window, threshold, capacity, minLength, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock source of the current time (in millis).
+     */
+    DuplicateFilter(long window, int threshold, int capacity, int minLength, LongSupplier clock) {
+        this.width = Math.max(capacity, 1) * COUNTERS_PER_TEXT;
+        this.halfWindow = Math.max(window / 2, 1);
+        this.threshold = threshold;
+        this.minLength = minLength;
+        this.clock = clock;
+        this.current = new int[DEPTH][width];
+        this.previous = new int[DEPTH][width];
+        this.rotateAt = clock.getAsLong() + halfWindow;
+    }
+
+    /**
+     * Counts an occurrence of a text and tells whether it is still within
+     * the allowed repetitions. Texts differing only in case or spacing are
+     * considered the same.
+     */
+    public synchronized boolean admit(String text) {
+        if (length(text) < minLength) {
+            return true;
+        }
+
+        long now = clock.getAsLong();
+        if (now >= rotateAt) {
+            rotate(now);
+        }
+
+        long hash = fingerprint(text);
+        int h1 = (int) hash;
+        // odd, so that the rows never collapse on the same column
+        int h2 = (int) (hash >>> 32) | 1;
+
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int col = ((h1 + i * h2) & 0x7fffffff) % width;
+            int count = ++current[i][col] + previous[i][col];
+            estimate = Math.min(estimate, count);
+        }
+        return estimate <= threshold;
+    }
+
+    private void rotate(long now) {
+        int[][] cleared = previous;
+        if (now >= rotateAt + halfWindow) {
+            // idle for the whole window: nothing recent is left
+            clear(current);
+        }
+        clear(cleared);
+        previous = current;
+        current = cleared;
+        rotateAt = now + halfWindow;
+    }
+
+    private static void clear(int[][] sketch) {
+        for (int[] row : sketch) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    private static int length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the normalized text.
+     */
+    private static long fingerprint(String text) {
+        long hash = 0xcbf29ce484222325L;
+        boolean started = false;
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = started;
+                continue;
+            }
+            started = true;
+            if (space) {
+                hash = (hash ^ ' ') * 0x100000001b3L;
+                space = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+}
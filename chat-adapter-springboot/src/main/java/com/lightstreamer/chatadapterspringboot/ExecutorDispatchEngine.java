@@ -0,0 +1,24 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dispatches the tasks through a single thread executor; this is the
+ * default engine.
+ */
+public class ExecutorDispatchEngine implements DispatchEngine {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public String toString() {
+        return EXECUTOR;
+    }
+
+}
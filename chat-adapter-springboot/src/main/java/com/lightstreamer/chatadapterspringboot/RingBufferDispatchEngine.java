@@ -0,0 +1,176 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispatches the tasks through a preallocated ring buffer, consumed by a
+ * single thread, as an alternative to the queue of an executor, which
+ * involves a lock and the allocation of a node for each task.
+ * Any number of threads can submit tasks: each one claims a slot by
+ * incrementing a shared sequence, hence the tasks are dispatched in the
+ * order of their claims. When the buffer is full, the submitting threads
+ * wait for the consumer to free a slot, according to the wait strategy;
+ * this also holds any lock they own, so the buffer should be sized to
+ * absorb the expected bursts.
+ * With the park strategy, the consumer, when idle, parks until a producer
+ * publishes a task and wakes it up, hence an idle engine costs no CPU.
+ * The consumer thread runs for the whole life of the process, hence it is
+ * a daemon, not to prevent the process from exiting.
+ */
+public class RingBufferDispatchEngine implements DispatchEngine {
+
+    private static final int DEFAULT_SIZE = 1024;
+
+    private static final long PARK_NANOS = 50 * 1000;
+
+    /**
+     * How a thread waits for a slot to be published or freed: busy
+     * spinning gives the lowest latency, at the cost of a whole core,
+     * whereas parking saves the CPU, at the cost of latency.
+     */
+    public enum WaitStrategy {
+        SPIN, YIELD, PARK;
+
+        static WaitStrategy of(String name) {
+            for (WaitStrategy strategy : values()) {
+                if (strategy.name().equalsIgnoreCase(name)) {
+                    return strategy;
+                }
+            }
+            return PARK;
+        }
+
+        void idle() {
+            switch (this) {
+                case SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                default:
+                    LockSupport.parkNanos(PARK_NANOS);
+                    break;
+            }
+        }
+    }
+
+    private final Runnable[] slots;
+
+    /**
+     * For each slot, the sequence of the last task published on it;
+     * a task is visible to the consumer once its sequence is found here.
+     */
+    private final AtomicLongArray published;
+
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Sequence of the last slot claimed by the producers.
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * Sequence of the last task run by the consumer.
+     */
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    final Thread consumer;
+
+    /**
+     * Set by the consumer before parking with no tasks to run, so that the
+     * producers know that it has to be woken up.
+     */
+    private volatile boolean sleeping;
+
+    private volatile boolean stopped;
+
+    public RingBufferDispatchEngine(int size, WaitStrategy waitStrategy) {
+        int capacity = Integer.highestOneBit(Math.max(size > 0 ? size : DEFAULT_SIZE, 2) - 1) << 1;
+        this.slots = new Runnable[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+
+        this.consumer = new Thread(new Runnable() {
+            public void run() {
+                consume();
+            }
+        }, "ChatDataAdapter dispatcher");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long seq = claimed.incrementAndGet();
+        // wait for the consumer to free the slot, if the buffer is full
+        while (seq - consumed.get() > slots.length) {
+            waitStrategy.idle();
+        }
+        int index = (int) seq & mask;
+        slots[index] = task;
+        // a full fence, so that the consumer cannot miss the task
+        // if it is going to sleep
+        published.set(index, seq);
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Stops the consumer thread, leaving any pending tasks not run.
+     */
+    void stop() throws InterruptedException {
+        stopped = true;
+        LockSupport.unpark(consumer);
+        consumer.join();
+    }
+
+    private void consume() {
+        long next = 0;
+        while (!stopped) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                awaitTask(index, next);
+                continue;
+            }
+            Runnable task = slots[index];
+            slots[index] = null;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.out.println("Unexpected error while dispatching: " + t);
+            }
+            consumed.lazySet(next);
+            next++;
+        }
+    }
+
+    private void awaitTask(int index, long seq) {
+        if (waitStrategy != WaitStrategy.PARK) {
+            waitStrategy.idle();
+            return;
+        }
+        sleeping = true;
+        // check again, as a producer may have published the task
+        // before seeing the flag
+        if (published.get(index) != seq && !stopped) {
+            LockSupport.park(this);
+        }
+        sleeping = false;
+    }
+
+    @Override
+    public String toString() {
+        return RING_BUFFER + " (size=" + slots.length + ", wait=" + waitStrategy + ")";
+    }
+
+}
@@ -1,17 +1,15 @@
 package com.lightstreamer.chatadapterspringboot;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.security.GeneralSecurityException;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLServerSocket;
-import javax.net.ssl.SSLServerSocketFactory;
-import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
 
 import com.lightstreamer.adapters.remote.DataProviderException;
 import com.lightstreamer.adapters.remote.ExceptionHandler;
@@ -32,12 +30,14 @@ public class ServerStarter implements ExceptionHandler, Runnable {
     private boolean _isTls;
     private boolean _isHostnameVerify;
     private int _rrPort;
+    private SocketOptions _options;
 
-    public ServerStarter(String host, boolean isTls, boolean isHostnameVerify, int rrPort) {
+    public ServerStarter(String host, boolean isTls, boolean isHostnameVerify, int rrPort, SocketOptions options) {
         _host = host;
         _isTls = isTls;
         _isHostnameVerify = isHostnameVerify;
         _rrPort = rrPort;
+        _options = options;
     }
 
     public final void launch(Server server) {
@@ -56,12 +56,12 @@ public class ServerStarter implements ExceptionHandler, Runnable {
 
             try {
                 if (_host != null) {
-                    _rrSocket = createProperSocket(_host, _isTls, _isHostnameVerify, _rrPort);
+                    _rrSocket = createProperSocket(_host, _isTls, _isHostnameVerify, _rrPort, _options);
                 } else {
-                    _rrSocket = acceptProperSocket(_isTls, _rrPort);
+                    _rrSocket = acceptProperSocket(_isTls, _rrPort, _options);
                 }
-                _server.setRequestStream(_rrSocket.getInputStream());
-                _server.setReplyStream(_rrSocket.getOutputStream());
+                _server.setRequestStream(_options.wrap(_rrSocket.getInputStream()));
+                _server.setReplyStream(_options.wrap(_rrSocket.getOutputStream()));
 
                 _log.info("Connected");
                 break;
@@ -94,57 +94,74 @@ public class ServerStarter implements ExceptionHandler, Runnable {
         }
     }
 
-    private static Socket createProperSocket(String host, boolean isTls, boolean isHostnameVerify, int port)
-            throws IOException {
+    private static Socket createProperSocket(String host, boolean isTls, boolean isHostnameVerify, int port,
+            SocketOptions options) throws IOException, GeneralSecurityException {
         _log.info("Opening connection on port " + port + (isTls ? " with TLS" : "") + "...");
         Socket s = null;
+        Socket plain = new Socket();
         try {
+            // options are set before connecting, as the buffer sizes
+            // affect the TCP handshake
+            options.configure(plain);
+            plain.connect(new InetSocketAddress(host, port));
             if (isTls) {
-                SSLSocket socket = (SSLSocket) SSLSocketFactory.getDefault().createSocket(host, port);
-                socket.startHandshake();
+                SSLContext context = SSLContext.getDefault();
+                SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket(plain, host, port, true);
+                SSLParameters params = socket.getSSLParameters();
+                options.configure(params);
                 if (isHostnameVerify) {
-                    // hostname check; could be disabled to simplify tests
-                    HostnameVerifier hv = HttpsURLConnection.getDefaultHostnameVerifier();
-                    SSLSession ssls = socket.getSession();
-                    if (!hv.verify(host, ssls)) {
-                        _log.error("Name verification failed: found " + ssls.getPeerPrincipal());
-                        socket.close();
-                        throw new IOException("Name verification failed");
-                    }
+                    // hostname check, performed during the handshake;
+                    // could be disabled to simplify tests
+                    params.setEndpointIdentificationAlgorithm("HTTPS");
                 }
+                socket.setSSLParameters(params);
+                socket.startHandshake();
+                _log.info("Negotiated " + socket.getSession().getProtocol() + " with "
+                        + socket.getSession().getCipherSuite());
                 s = socket;
             } else {
-                s = new Socket(host, port);
+                s = plain;
             }
         } finally {
             if (s != null) {
                 _log.info("Connection on port " + port + " opened");
             } else {
                 _log.info("Connection on port " + port + " failed");
+                plain.close();
             }
         }
         return s;
     }
 
-    private static Socket acceptProperSocket(boolean isTls, int port) throws IOException, GeneralSecurityException {
+    private static Socket acceptProperSocket(boolean isTls, int port, SocketOptions options)
+            throws IOException, GeneralSecurityException {
         _log.info("Listening on port " + port + (isTls ? " with TLS" : "") + "...");
         Socket s = null;
         ServerSocket serverSocket = null;
         try {
             if (isTls) {
-                SSLServerSocketFactory factory = (SSLServerSocketFactory) SSLServerSocketFactory.getDefault();
                 // leans on the following java system properties to be configured:
                 // - javax.net.ssl.keyStore
                 // - javax.net.ssl.keyStorePassword
-                serverSocket = factory.createServerSocket(port);
+                SSLContext context = SSLContext.getDefault();
+                SSLServerSocket sslServerSocket = (SSLServerSocket) context.getServerSocketFactory()
+                        .createServerSocket();
+                SSLParameters params = sslServerSocket.getSSLParameters();
+                options.configure(params);
                 if (false) {
                     // possible further authentication challenge on the Proxy Adapter
-                    ((SSLServerSocket) serverSocket).setNeedClientAuth(true);
+                    params.setNeedClientAuth(true);
                 }
+                sslServerSocket.setSSLParameters(params);
+                serverSocket = sslServerSocket;
             } else {
-                serverSocket = new ServerSocket(port);
+                serverSocket = new ServerSocket();
             }
+            // the receive buffer size must be set before binding
+            options.configure(serverSocket);
+            serverSocket.bind(new InetSocketAddress(port));
             s = serverSocket.accept();
+            options.configure(s);
             if (isTls) {
                 ((SSLSocket) s).startHandshake();
             }
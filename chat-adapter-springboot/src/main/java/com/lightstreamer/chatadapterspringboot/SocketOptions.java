@@ -0,0 +1,123 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import javax.net.ssl.SSLParameters;
+
+/**
+ * Collects the options to be applied to the sockets opened by
+ * {@link ServerStarter} towards the Proxy Adapters.
+ * Sizes not greater than 0 and empty lists mean that the system defaults
+ * are kept.
+ */
+public class SocketOptions {
+
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+    private boolean tcpNoDelay = false;
+    private boolean keepAlive = false;
+    private int streamBufferSize = 0;
+    private String[] tlsProtocols = new String[0];
+    private String[] tlsCipherSuites = new String[0];
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Note that the Remote Server already buffers both streams internally
+     * and flushes the reply stream after each batch of messages, hence
+     * further buffering is not needed in most cases.
+     */
+    public void setStreamBufferSize(int streamBufferSize) {
+        this.streamBufferSize = streamBufferSize;
+    }
+
+    public void setTlsProtocols(String protocols) {
+        this.tlsProtocols = split(protocols);
+    }
+
+    public void setTlsCipherSuites(String cipherSuites) {
+        this.tlsCipherSuites = split(cipherSuites);
+    }
+
+    /**
+     * Applies the options to a socket; the buffer sizes, in particular,
+     * should be applied before connecting, so that they can be considered
+     * in the TCP handshake.
+     */
+    public void configure(Socket socket) throws IOException {
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        socket.setTcpNoDelay(tcpNoDelay);
+        socket.setKeepAlive(keepAlive);
+    }
+
+    /**
+     * Applies the receive buffer size to a listening socket, before binding
+     * it, so that it is inherited by the accepted sockets.
+     */
+    public void configure(ServerSocket serverSocket) throws IOException {
+        if (receiveBufferSize > 0) {
+            serverSocket.setReceiveBufferSize(receiveBufferSize);
+        }
+    }
+
+    public void configure(SSLParameters params) {
+        if (tlsProtocols.length > 0) {
+            params.setProtocols(tlsProtocols);
+        }
+        if (tlsCipherSuites.length > 0) {
+            params.setCipherSuites(tlsCipherSuites);
+        }
+    }
+
+    public InputStream wrap(InputStream in) {
+        return streamBufferSize > 0 ? new BufferedInputStream(in, streamBufferSize) : in;
+    }
+
+    public OutputStream wrap(OutputStream out) {
+        return streamBufferSize > 0 ? new BufferedOutputStream(out, streamBufferSize) : out;
+    }
+
+    @Override
+    public String toString() {
+        return "sndbuf=" + sendBufferSize + ", rcvbuf=" + receiveBufferSize + ", nodelay=" + tcpNoDelay
+                + ", keepalive=" + keepAlive + ", streambuf=" + streamBufferSize
+                + ", protocols=" + String.join(",", tlsProtocols) + ", ciphers=" + String.join(",", tlsCipherSuites);
+    }
+
+    private static String[] split(String list) {
+        if (list == null || list.trim().length() == 0) {
+            return new String[0];
+        }
+        String[] items = list.split(",");
+        for (int i = 0; i < items.length; i++) {
+            items[i] = items[i].trim();
+        }
+        return items;
+    }
+
+}
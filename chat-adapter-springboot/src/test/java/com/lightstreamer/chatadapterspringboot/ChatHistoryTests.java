@@ -0,0 +1,156 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ChatHistoryTests {
+
+	private static Map<String, String> message(String nick, String text) {
+		Map<String, String> fields = new HashMap<String, String>();
+		fields.put("nick", nick);
+		fields.put("message", text);
+		return fields;
+	}
+
+	private static List<String> texts(List<Map<String, String>> messages) {
+		List<String> texts = new ArrayList<String>();
+		for (Map<String, String> fields : messages) {
+			texts.add(fields.get("message"));
+		}
+		return texts;
+	}
+
+	@Test
+	void queryIsTokenizedAsMessages() {
+		ChatHistory history = new ChatHistory(10);
+		history.add(message("Mozilla", "Hello world!"));
+		history.add(message("Chrome", "hello there"));
+
+		assertEquals(List.of("hello there", "Hello world!"), texts(history.search("Hello!", 10)));
+		assertEquals(List.of("Hello world!"), texts(history.search("hello world", 10)));
+		assertEquals(List.of("hello there"), texts(history.search("chrome", 10)));
+		assertTrue(history.search("hello nobody", 10).isEmpty());
+		assertTrue(history.search("?!", 10).isEmpty());
+	}
+
+	@Test
+	void searchIsLimitedToMostRecent() {
+		ChatHistory history = new ChatHistory(10);
+		for (int i = 0; i < 5; i++) {
+			history.add(message("nick", "ping " + i));
+		}
+
+		assertEquals(List.of("ping 4", "ping 3"), texts(history.search("ping", 2)));
+	}
+
+	@Test
+	void postingsAreEvictedWhenWindowWraps() {
+		ChatHistory history = new ChatHistory(3);
+		history.add(message("nick", "alpha"));
+		history.add(message("nick", "beta alpha"));
+		history.add(message("nick", "gamma"));
+		// evicts "alpha", then "beta alpha"
+		history.add(message("nick", "delta"));
+		history.add(message("nick", "alpha again"));
+
+		assertTrue(history.search("beta", 10).isEmpty());
+		assertEquals(List.of("alpha again"), texts(history.search("alpha", 10)));
+		assertEquals(List.of("alpha again", "delta", "gamma"), texts(history.search("nick", 10)));
+
+		// many more rounds of the window
+		for (int i = 0; i < 100; i++) {
+			history.add(message("nick", "word" + (i % 7)));
+		}
+		assertTrue(history.search("alpha", 10).isEmpty());
+		assertEquals(List.of("word1"), texts(history.search("word1", 10)));
+		assertEquals(List.of("word1", "word0", "word6"), texts(history.search("nick", 10)));
+	}
+
+	@Test
+	void nickIsIndexedAsWhole() {
+		ChatHistory history = new ChatHistory(10);
+		String nick = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) [1]";
+		history.add(message(nick, "first"));
+		history.add(message("Other", "windows rocks"));
+		history.add(message(nick, "second"));
+
+		assertEquals(List.of("second", "first"), texts(history.search(" mozilla/5.0 (windows nt 10.0; win64; x64) [1]", 10)));
+		// the words of the nick are not indexed
+		assertEquals(List.of("windows rocks"), texts(history.search("windows", 10)));
+		assertTrue(history.search("win64", 10).isEmpty());
+	}
+
+	@Test
+	void searchExaminesBoundedCandidates() {
+		int size = ChatHistory.MAX_CANDIDATES * 4;
+		ChatHistory history = new ChatHistory(size);
+		history.add(message("nick", "alpha beta old"));
+		for (int i = 1; i < size; i++) {
+			history.add(message("nick", i % 2 == 0 ? "alpha" : "beta"));
+		}
+
+		// the only match is older than the candidates examined
+		assertTrue(history.search("alpha beta", 10).isEmpty());
+		assertEquals(List.of("alpha beta old"), texts(history.search("old", 10)));
+
+		history.add(message("nick", "alpha beta new"));
+		assertEquals(List.of("alpha beta new"), texts(history.search("alpha beta", 10)));
+	}
+
+	private static List<String> seqs(List<Map<String, String>> messages) {
+		List<String> seqs = new ArrayList<String>();
+		for (Map<String, String> fields : messages) {
+			seqs.add(fields.get("seq"));
+		}
+		return seqs;
+	}
+
+	@Test
+	void sinceReturnsFollowingMessages() {
+		ChatHistory history = new ChatHistory(5);
+		assertTrue(history.since(0).isEmpty());
+
+		for (int i = 1; i <= 3; i++) {
+			assertEquals(i, history.add(message("nick", "m" + i)));
+		}
+
+		assertEquals(List.of("1", "2", "3"), seqs(history.since(0)));
+		assertEquals(List.of("3"), seqs(history.since(2)));
+		assertTrue(history.since(3).isEmpty());
+	}
+
+	@Test
+	void sinceAcrossWraparoundAndEviction() {
+		ChatHistory history = new ChatHistory(4);
+		for (int i = 1; i <= 10; i++) {
+			history.add(message("nick", "m" + i));
+		}
+		// retained: 7 to 10, stored across the end of the buffer
+
+		assertEquals(List.of("8", "9", "10"), seqs(history.since(7)));
+		assertEquals(List.of("7", "8", "9", "10"), seqs(history.since(6)));
+		// evicted messages are skipped; the gap shows in the first seq
+		assertEquals(List.of("7", "8", "9", "10"), seqs(history.since(2)));
+		assertTrue(history.since(10).isEmpty());
+	}
+
+	@Test
+	void sinceUnassignedSeqReturnsWholeHistory() {
+		ChatHistory history = new ChatHistory(4);
+		for (int i = 1; i <= 6; i++) {
+			history.add(message("nick", "m" + i));
+		}
+
+		// e.g. a seq received before a restart
+		assertEquals(List.of("3", "4", "5", "6"), seqs(history.since(7)));
+		assertEquals(List.of("3", "4", "5", "6"), seqs(history.since(1000)));
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ChatSessionsTests {
+
+	private static Map<String, String> clientContext(String ip, String ua) {
+		Map<String, String> context = new HashMap<String, String>();
+		context.put("REMOTE_IP", ip);
+		context.put("USER_AGENT", ua);
+		return context;
+	}
+
+	@Test
+	void conflictingClientsAreMadeUnique() {
+		ChatSessions sessions = new ChatSessions();
+
+		Map<String, String> first = clientContext("10.0.0.1", "Mozilla");
+		Map<String, String> second = clientContext("10.0.0.1", "Mozilla");
+		assertTrue(sessions.open("S1", first));
+		assertTrue(sessions.open("S2", second));
+		assertFalse(first.get("USER_AGENT").equals(second.get("USER_AGENT")));
+
+		assertFalse(sessions.open("S1", clientContext("10.0.0.1", "Mozilla")));
+		assertEquals(2, sessions.identifierCount());
+	}
+
+	@Test
+	void sessionChurnLeavesNoIdentifiers() {
+		ChatSessions sessions = new ChatSessions();
+
+		// few distinct clients, so that most sessions get a progressive
+		for (int i = 0; i < 1000000; i++) {
+			sessions.open("S" + i, clientContext("10.0.0." + (i % 4), "Mozilla"));
+			if (i >= 16) {
+				assertTrue(sessions.close("S" + (i - 16)));
+			}
+		}
+		for (int i = 1000000 - 16; i < 1000000; i++) {
+			assertTrue(sessions.close("S" + i));
+		}
+
+		assertFalse(sessions.close("S0"));
+		assertEquals(0, sessions.sessionCount());
+		assertEquals(0, sessions.identifierCount());
+	}
+
+	@Test
+	void laterContextChangesDoNotLeakIdentifiers() {
+		ChatSessions sessions = new ChatSessions();
+
+		Map<String, String> context = clientContext("10.0.0.1", "Mozilla");
+		sessions.open("S1", context);
+		// the caller changes its client context after registration
+		context.put("USER_AGENT", "Other");
+
+		assertTrue(sessions.close("S1"));
+		assertEquals(0, sessions.identifierCount());
+		assertEquals(0, sessions.sessionCount());
+	}
+
+}
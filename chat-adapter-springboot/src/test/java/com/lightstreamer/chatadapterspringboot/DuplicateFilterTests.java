@@ -0,0 +1,89 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DuplicateFilterTests {
+
+	private long now = 0;
+
+	private DuplicateFilter filter(long window, int threshold, int capacity) {
+		return new DuplicateFilter(window, threshold, capacity, 0, () -> now);
+	}
+
+	@Test
+	void textsAreAdmittedUpToThreshold() {
+		DuplicateFilter filter = filter(1000, 3, 100);
+
+		assertTrue(filter.admit("Buy now"));
+		assertTrue(filter.admit("  buy   NOW "));
+		assertTrue(filter.admit("buy now"));
+		assertFalse(filter.admit("buy now"));
+		assertTrue(filter.admit("buy later"));
+	}
+
+	@Test
+	void shortTextsAreNotCounted() {
+		DuplicateFilter filter = new DuplicateFilter(1000, 3, 100, 4, () -> now);
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(filter.admit("o k"));
+		}
+		for (int i = 0; i < 3; i++) {
+			assertTrue(filter.admit("spam"));
+		}
+		assertFalse(filter.admit(" SPAM "));
+	}
+
+	@Test
+	void countsSlideWithTheWindow() {
+		DuplicateFilter filter = filter(1000, 3, 100);
+
+		for (int i = 0; i < 4; i++) {
+			filter.admit("spam");
+		}
+
+		// half window elapsed: the previous counts still apply
+		now = 500;
+		assertFalse(filter.admit("spam"));
+
+		// whole window elapsed: only the occurrence in the last half counts
+		now = 1000;
+		assertTrue(filter.admit("spam"));
+		assertTrue(filter.admit("spam"));
+		assertFalse(filter.admit("spam"));
+	}
+
+	@Test
+	void idleWindowForgetsEverything() {
+		DuplicateFilter filter = filter(1000, 3, 100);
+
+		for (int i = 0; i < 4; i++) {
+			filter.admit("spam");
+		}
+
+		now = 3000;
+		assertTrue(filter.admit("spam"));
+		assertTrue(filter.admit("spam"));
+		assertTrue(filter.admit("spam"));
+	}
+
+	@Test
+	void distinctTextsAtExpectedLoadAreAdmitted() {
+		int capacity = 10000;
+		DuplicateFilter filter = filter(60000, 3, capacity);
+
+		int rejected = 0;
+		for (int i = 0; i < 3 * capacity; i++) {
+			now = i * 60000L / capacity;
+			if (!filter.admit("distinct message number " + i)) {
+				rejected++;
+			}
+		}
+		assertEquals(0, rejected);
+	}
+
+}
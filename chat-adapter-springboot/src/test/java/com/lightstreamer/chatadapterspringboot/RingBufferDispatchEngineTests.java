@@ -0,0 +1,122 @@
+package com.lightstreamer.chatadapterspringboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.lightstreamer.chatadapterspringboot.RingBufferDispatchEngine.WaitStrategy;
+
+class RingBufferDispatchEngineTests {
+
+	private static final int PRODUCERS = 4;
+
+	/**
+	 * Submits tasks from several producers on a small ring, so that it
+	 * wraps and fills up many times, and checks that all tasks run and that
+	 * the tasks of each producer run in order.
+	 */
+	private static void dispatchInOrder(WaitStrategy waitStrategy, int tasksPerProducer) throws Exception {
+		RingBufferDispatchEngine engine = new RingBufferDispatchEngine(4, waitStrategy);
+		try {
+			dispatchInOrder(engine, tasksPerProducer);
+		} finally {
+			engine.stop();
+		}
+	}
+
+	private static void dispatchInOrder(RingBufferDispatchEngine engine, int tasksPerProducer) throws Exception {
+		// only accessed by the consumer thread
+		final int[] last = new int[PRODUCERS];
+		final AtomicInteger outOfOrder = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(PRODUCERS * tasksPerProducer);
+
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int producer = p;
+			producers[p] = new Thread(() -> {
+				for (int i = 1; i <= tasksPerProducer; i++) {
+					final int task = i;
+					engine.execute(() -> {
+						if (last[producer] != task - 1) {
+							outOfOrder.incrementAndGet();
+						}
+						last[producer] = task;
+						done.countDown();
+					});
+				}
+			});
+			producers[p].start();
+		}
+
+		assertTrue(done.await(60, TimeUnit.SECONDS), "Not all tasks were run");
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertEquals(0, outOfOrder.get());
+		for (int p = 0; p < PRODUCERS; p++) {
+			assertEquals(tasksPerProducer, last[p]);
+		}
+	}
+
+	@Test
+	void parkKeepsProducerOrder() throws Exception {
+		dispatchInOrder(WaitStrategy.PARK, 20000);
+	}
+
+	@Test
+	void yieldKeepsProducerOrder() throws Exception {
+		dispatchInOrder(WaitStrategy.YIELD, 20000);
+	}
+
+	@Test
+	void spinKeepsProducerOrder() throws Exception {
+		// busy spinning makes little progress when cores are scarce
+		dispatchInOrder(WaitStrategy.SPIN, 50);
+	}
+
+	@Test
+	void failingTaskDoesNotStopDispatching() throws Exception {
+		RingBufferDispatchEngine engine = new RingBufferDispatchEngine(4, WaitStrategy.PARK);
+		try {
+			CountDownLatch done = new CountDownLatch(1);
+
+			engine.execute(() -> {
+				throw new IllegalStateException("Test failure");
+			});
+			engine.execute(done::countDown);
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			engine.stop();
+		}
+	}
+
+	@Test
+	void idleConsumerParksUntilWokenUp() throws Exception {
+		RingBufferDispatchEngine engine = new RingBufferDispatchEngine(4, WaitStrategy.PARK);
+		try {
+			for (int round = 0; round < 3; round++) {
+				CountDownLatch done = new CountDownLatch(1);
+				engine.execute(done::countDown);
+				assertTrue(done.await(10, TimeUnit.SECONDS));
+
+				// parked with no timeout, rather than polling
+				long deadline = System.currentTimeMillis() + 10000;
+				while (engine.consumer.getState() != Thread.State.WAITING) {
+					assertTrue(System.currentTimeMillis() < deadline, "Consumer not parked");
+					Thread.sleep(1);
+				}
+			}
+		} finally {
+			engine.stop();
+		}
+		assertFalse(engine.consumer.isAlive());
+	}
+
+}